@@ -0,0 +1,421 @@
+package com.mindtherobot.samples.thermometer;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Renders dial backgrounds for sizes a gauge is likely to get next (e.g. after a rotation),
+ * so that the size change does not have to render them synchronously.
+ *
+ * Backgrounds are rendered in parallel on a small pool of low priority threads and kept in a
+ * process-wide LRU cache with a bounded memory budget. A requested background is kept until it is
+ * taken or cancelled; once released (e.g. when its gauge goes away, possibly to be recreated by a
+ * rotation) or offered, it is discarded if nobody takes it within maxUnusedMillis, whether or not
+ * the prewarmer is called again. Each request and each offer counts on its own, so several gauges
+ * of the same size all find a background.
+ *
+ * Thread-safe. A target is only touched by one thread at a time: the worker rendering it,
+ * then (after it has been handed over under the lock) the thread that took it.
+ */
+public final class BackgroundPrewarmer {
+
+	private static final String TAG = BackgroundPrewarmer.class.getSimpleName();
+
+	private static final int poolSize = 2;
+	private static final long maxUnusedMillis = 30L * 1000L;
+	private static final long keepUntilReleased = Long.MAX_VALUE;
+
+	private static BackgroundPrewarmer instance;
+
+	private final ExecutorService executor;
+	private final long memoryBudget;
+
+	// discards expired backgrounds, see schedulePurge()
+	private final Handler handler = new Handler(Looper.getMainLooper());
+	private final Runnable purge = new Runnable() {
+		@Override
+		public void run() {
+			synchronized (BackgroundPrewarmer.this) {
+				expire();
+				schedulePurge();
+			}
+		}
+	};
+
+	// guarded by this
+	// requested and offered backgrounds, rendered or still rendering, by size in access order
+	private final LinkedHashMap<Key, ArrayList<Entry>> entries = new LinkedHashMap<Key, ArrayList<Entry>>(16, 0.75f, true);
+	private long cachedBytes = 0; // of the rendered ones
+
+	public static synchronized BackgroundPrewarmer getInstance() {
+		if (instance == null) {
+			/**
+			 * an eighth of the heap, but not more than a few full-screen backgrounds
+			 */
+			long budget = Math.min(Runtime.getRuntime().maxMemory() / 8, 16L * 1024L * 1024L);
+			instance = new BackgroundPrewarmer(budget);
+		}
+		return instance;
+	}
+
+	private BackgroundPrewarmer(long memoryBudget) {
+		this.memoryBudget = memoryBudget;
+		executor = Executors.newFixedThreadPool(poolSize, new ThreadFactory() {
+			private int count = 0;
+
+			@Override
+			public synchronized Thread newThread(final Runnable runnable) {
+				Thread thread = new Thread(new Runnable() {
+					@Override
+					public void run() {
+						Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+						runnable.run();
+					}
+				}, TAG + "-" + (++count));
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	/**
+	 * Schedules rendering a background, unless an unclaimed one of this size (one that was released
+	 * or offered) can serve instead, or it would not fit into the memory budget. Every request gets a
+	 * background of its own, so gauges of the same size do not compete for one. It is kept until
+	 * taken, cancelled or released.
+	 */
+	public void request(GaugeRenderer renderer, int width, int height, GaugeRenderer.Detail detail) {
+		if (width <= 0 || height <= 0) {
+			return;
+		}
+		final Key key = new Key(renderer, width, height, detail);
+		final Entry entry;
+		synchronized (this) {
+			expire();
+			ArrayList<Entry> list = entries.get(key);
+			Entry unclaimed = find(list, false, true);
+			if (unclaimed == null) {
+				unclaimed = find(list, false, false);
+			}
+			if (unclaimed != null) {
+				unclaimed.expiryTime = keepUntilReleased;
+				unclaimed.offered = false;
+				schedulePurge();
+				return;
+			}
+			if (key.getBytes() > memoryBudget) {
+				return;
+			}
+			entry = new Entry(keepUntilReleased);
+			add(key, entry);
+		}
+		executor.execute(new Runnable() {
+			@Override
+			public void run() {
+				render(key, entry);
+			}
+		});
+	}
+
+	private void render(Key key, Entry entry) {
+		synchronized (this) {
+			if (entry.dropped) {
+				return; // cancelled while waiting
+			}
+		}
+
+		GaugeRenderer.Target target = key.renderer.createTarget(key.width, key.height, key.detail);
+		try {
+			target.prepare();
+		} catch (OutOfMemoryError e) {
+			Log.w(TAG, "Not enough memory to prewarm " + key.width + "x" + key.height);
+			target.recycle();
+			synchronized (this) {
+				if (!entry.dropped) {
+					discard(key, entry);
+				}
+			}
+			return;
+		}
+
+		synchronized (this) {
+			if (entry.dropped) {
+				target.recycle();
+				return;
+			}
+			entry.target = target;
+			cachedBytes += key.getBytes();
+			trim(entry);
+			schedulePurge();
+		}
+	}
+
+	/**
+	 * @param requested whether the caller has requested this background. Its request is settled
+	 * either way: if its own background is not ready, the render is dropped.
+	 * @return a target with its background already rendered, or null if there is none for this size.
+	 * Without a request of its own the caller only gets unclaimed ones. The caller owns the returned target.
+	 */
+	public synchronized GaugeRenderer.Target take(GaugeRenderer renderer, int width, int height,
+			GaugeRenderer.Detail detail, boolean requested) {
+		expire();
+		Key key = new Key(renderer, width, height, detail);
+		ArrayList<Entry> list = entries.get(key);
+		Entry entry = null;
+		if (requested) {
+			entry = find(list, true, true);
+			if (entry == null) {
+				Entry rendering = find(list, true, false);
+				if (rendering != null) {
+					discard(key, rendering);
+				}
+			}
+		}
+		if (entry == null) {
+			entry = find(list, false, true);
+		}
+		schedulePurge();
+		if (entry == null) {
+			return null;
+		}
+
+		GaugeRenderer.Target target = entry.target;
+		entry.target = null; // handed over, not recycled
+		cachedBytes -= key.getBytes();
+		discard(key, entry);
+		Log.d(TAG, "Using prewarmed background " + width + "x" + height);
+		return target;
+	}
+
+	/**
+	 * Keeps a target that is no longer used, e.g. the one from before a rotation, so that a size
+	 * change back can take it. The prewarmer owns the target from now on.
+	 */
+	public synchronized void offer(GaugeRenderer.Target target) {
+		expire();
+		Key key = new Key(target.getRenderer(), target.getWidth(), target.getHeight(), target.getDetail());
+		if (!target.isPrepared() || key.getBytes() > memoryBudget) {
+			target.recycle();
+			return;
+		}
+
+		// an unclaimed render of the same background is not needed anymore
+		Entry rendering = find(entries.get(key), false, false);
+		if (rendering != null) {
+			discard(key, rendering);
+		}
+
+		Entry entry = new Entry(SystemClock.uptimeMillis() + maxUnusedMillis);
+		entry.target = target;
+		entry.offered = true;
+		add(key, entry);
+		cachedBytes += key.getBytes();
+		trim(entry);
+		schedulePurge();
+	}
+
+	/**
+	 * Drops one requested background right away, e.g. because the prediction changed.
+	 */
+	public synchronized void cancel(GaugeRenderer renderer, int width, int height, GaugeRenderer.Detail detail) {
+		Key key = new Key(renderer, width, height, detail);
+		ArrayList<Entry> list = entries.get(key);
+		Entry entry = find(list, true, false);
+		if (entry == null) {
+			entry = find(list, true, true);
+		}
+		if (entry != null) {
+			discard(key, entry);
+		}
+	}
+
+	/**
+	 * Keeps one requested background for a while only, e.g. because its gauge was detached
+	 * and may or may not be recreated with the predicted size.
+	 */
+	public synchronized void release(GaugeRenderer renderer, int width, int height, GaugeRenderer.Detail detail) {
+		Key key = new Key(renderer, width, height, detail);
+		ArrayList<Entry> list = entries.get(key);
+		Entry entry = find(list, true, true);
+		if (entry == null) {
+			entry = find(list, true, false);
+		}
+		if (entry != null) {
+			entry.expiryTime = SystemClock.uptimeMillis() + maxUnusedMillis;
+			schedulePurge();
+		}
+	}
+
+	/**
+	 * @param claimed whether to look for a requested background or for one that is only kept for a while
+	 * @param ready whether to look for a rendered background or for one that is still rendering
+	 */
+	private static Entry find(ArrayList<Entry> list, boolean claimed, boolean ready) {
+		if (list != null) {
+			for (Entry entry : list) {
+				if ((entry.expiryTime == keepUntilReleased) == claimed && (entry.target != null) == ready) {
+					return entry;
+				}
+			}
+		}
+		return null;
+	}
+
+	// called with the lock held
+	private void add(Key key, Entry entry) {
+		ArrayList<Entry> list = entries.get(key);
+		if (list == null) {
+			list = new ArrayList<Entry>(2);
+			entries.put(key, list);
+		}
+		list.add(entry);
+	}
+
+	// called with the lock held
+	private void discard(Key key, Entry entry) {
+		ArrayList<Entry> list = entries.get(key);
+		list.remove(entry);
+		if (list.isEmpty()) {
+			entries.remove(key);
+		}
+		drop(key, entry);
+	}
+
+	// called with the lock held, once the entry is out of the map
+	private void drop(Key key, Entry entry) {
+		entry.dropped = true;
+		if (entry.target != null) {
+			cachedBytes -= key.getBytes();
+			entry.target.recycle();
+			entry.target = null;
+		}
+	}
+
+	// called with the lock held
+	private void trim(Entry added) {
+		/**
+		 * old backgrounds that were only offered go before the predicted ones, which a gauge is
+		 * about to need. Within each, the map is in access order, so the least recently used go first
+		 */
+		trim(added, true);
+		trim(added, false);
+	}
+
+	// called with the lock held
+	private void trim(Entry added, boolean offeredOnly) {
+		for (Iterator<Map.Entry<Key, ArrayList<Entry>>> it = entries.entrySet().iterator(); cachedBytes > memoryBudget && it.hasNext(); ) {
+			Map.Entry<Key, ArrayList<Entry>> mapEntry = it.next();
+			for (Iterator<Entry> listIt = mapEntry.getValue().iterator(); cachedBytes > memoryBudget && listIt.hasNext(); ) {
+				Entry entry = listIt.next();
+				if (entry != added && entry.target != null && (entry.offered || !offeredOnly)) {
+					listIt.remove();
+					drop(mapEntry.getKey(), entry);
+				}
+			}
+			if (mapEntry.getValue().isEmpty()) {
+				it.remove();
+			}
+		}
+	}
+
+	// called with the lock held
+	private void expire() {
+		long now = SystemClock.uptimeMillis();
+		for (Iterator<Map.Entry<Key, ArrayList<Entry>>> it = entries.entrySet().iterator(); it.hasNext(); ) {
+			Map.Entry<Key, ArrayList<Entry>> mapEntry = it.next();
+			for (Iterator<Entry> listIt = mapEntry.getValue().iterator(); listIt.hasNext(); ) {
+				Entry entry = listIt.next();
+				if (now > entry.expiryTime) {
+					listIt.remove();
+					drop(mapEntry.getKey(), entry);
+				}
+			}
+			if (mapEntry.getValue().isEmpty()) {
+				it.remove();
+			}
+		}
+	}
+
+	/**
+	 * Wakes up when the next background expires, so unused ones are discarded
+	 * even if the prewarmer is not called again. Called with the lock held.
+	 */
+	private void schedulePurge() {
+		long nextExpiryTime = Long.MAX_VALUE;
+		for (ArrayList<Entry> list : entries.values()) {
+			for (Entry entry : list) {
+				nextExpiryTime = Math.min(nextExpiryTime, entry.expiryTime);
+			}
+		}
+		handler.removeCallbacks(purge);
+		if (nextExpiryTime != keepUntilReleased) {
+			handler.postAtTime(purge, nextExpiryTime + 1);
+		}
+	}
+
+	/**
+	 * One background, from the moment it is requested or offered.
+	 */
+	private static final class Entry {
+		// all guarded by the prewarmer
+		GaugeRenderer.Target target; // null while rendering
+		long expiryTime;
+		boolean offered = false; // an old background nobody requested, see trim()
+		boolean dropped = false;
+
+		Entry(long expiryTime) {
+			this.expiryTime = expiryTime;
+		}
+	}
+
+	private static final class Key {
+		final GaugeRenderer renderer;
+		final int width;
+		final int height;
+		final GaugeRenderer.Detail detail;
+
+		Key(GaugeRenderer renderer, int width, int height, GaugeRenderer.Detail detail) {
+			this.renderer = renderer;
+			this.width = width;
+			this.height = height;
+			this.detail = detail;
+		}
+
+		/**
+		 * the background is an ARGB_8888 bitmap
+		 */
+		long getBytes() {
+			return 4L * width * height;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) o;
+			return renderer == other.renderer && width == other.width && height == other.height
+					&& detail == other.detail;
+		}
+
+		@Override
+		public int hashCode() {
+			int result = System.identityHashCode(renderer);
+			result = 31 * result + width;
+			result = 31 * result + height;
+			result = 31 * result + detail.hashCode();
+			return result;
+		}
+	}
+}
@@ -0,0 +1,70 @@
+package com.mindtherobot.samples.thermometer;
+
+/**
+ * The dynamic part of a gauge that {@link GaugeRenderer} needs to draw a frame.
+ * Temperatures are expressed in F degrees, just like the hand dynamics in {@link Thermometer}.
+ *
+ * Not thread-safe: every thread that renders should fill in its own instance.
+ */
+public final class GaugeState {
+
+	private boolean handInitialized = false;
+	private float handPosition = GaugeRenderer.minDegrees;
+
+	// NaN when there is no marker to draw
+	private float minMarker = Float.NaN;
+	private float maxMarker = Float.NaN;
+
+	public GaugeState() {
+	}
+
+	public GaugeState(boolean handInitialized, float handPosition) {
+		set(handInitialized, handPosition);
+	}
+
+	public void set(boolean handInitialized, float handPosition) {
+		this.handInitialized = handInitialized;
+		this.handPosition = handPosition;
+	}
+
+	/**
+	 * By default,there's no hand showing to the user.Only if the hand is initialized,it shows.
+	 */
+	public boolean isHandInitialized() {
+		return handInitialized;
+	}
+
+	public float getHandPosition() {
+		return handPosition;
+	}
+
+	/**
+	 * Sets the low and high marks drawn on the scale, e.g. from {@link RollingStatistics#readRange}.
+	 * NaN leaves the mark out.
+	 */
+	public void setMarkers(float minMarker, float maxMarker) {
+		this.minMarker = minMarker;
+		this.maxMarker = maxMarker;
+	}
+
+	/**
+	 * Sets the marks to the min/max of the statistics, or leaves them out if there are none
+	 * or span is null.
+	 */
+	public void setMarkers(RollingStatistics statistics, RollingStatistics.Span span) {
+		if (statistics == null || span == null) {
+			setMarkers(Float.NaN, Float.NaN);
+		} else {
+			long range = statistics.readRange(span);
+			setMarkers(RollingStatistics.minOf(range), RollingStatistics.maxOf(range));
+		}
+	}
+
+	public float getMinMarker() {
+		return minMarker;
+	}
+
+	public float getMaxMarker() {
+		return maxMarker;
+	}
+}
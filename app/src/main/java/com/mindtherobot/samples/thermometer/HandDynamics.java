@@ -0,0 +1,142 @@
+package com.mindtherobot.samples.thermometer;
+
+import android.os.Bundle;
+import android.util.Log;
+
+/**
+ * The spring-like hand movement shared by {@link Thermometer} and {@link ThermometerSurfaceView}.
+ * All values are angular expressed in F degrees.
+ *
+ * Not thread-safe: callers that step the hand on another thread have to synchronize on the instance.
+ */
+final class HandDynamics {
+
+	// how long a skipped frame waits before the hand is stepped again
+	static final long frameDelayMillis = 16L;
+
+	private boolean handInitialized = false;
+	private float handPosition = GaugeRenderer.minDegrees;
+	private float handTarget = GaugeRenderer.centerDegree;
+	private float handVelocity = 0.0f;
+	private float handAcceleration = 0.0f;
+	private long lastHandMoveTime = -1L;
+
+	// sequence of the last hub reading applied to handTarget, see TemperatureSensorHub.Channel
+	private int lastReadingSequence = 0;
+
+	public boolean isInitialized() {
+		return handInitialized;
+	}
+
+	public float getPosition() {
+		return handPosition;
+	}
+
+	public void setTarget(float temperature) {
+		if (temperature < GaugeRenderer.minDegrees) {
+			temperature = GaugeRenderer.minDegrees;
+		} else if (temperature > GaugeRenderer.maxDegrees) {
+			temperature = GaugeRenderer.maxDegrees;
+		}
+		handTarget = temperature;
+		handInitialized = true;
+	}
+
+	/**
+	 * Moves the target to the latest reading of the channel, unless it has been applied already.
+	 * Meant to be called once per frame.
+	 * @return true if a new reading was applied
+	 */
+	public boolean update(TemperatureSensorHub.Channel channel) {
+		long reading = channel.read();
+		int sequence = TemperatureSensorHub.Channel.sequenceOf(reading);
+		if (sequence == lastReadingSequence) {
+			return false;
+		}
+		lastReadingSequence = sequence;
+		setTarget(TemperatureSensorHub.Channel.temperatureOf(reading));
+		return true;
+	}
+
+	public boolean needsToMove() {
+		return Math.abs(handPosition - handTarget) > 0.01f;
+	}
+
+	/**
+	 * Advances the hand by the time elapsed since the previous call.
+	 * @return true if the hand position may have changed and the gauge has to be redrawn
+	 */
+	public boolean move() {
+		/**
+		 * temprature changes so little that we can just ignore it.
+		 */
+		if (! needsToMove()) {
+			return false;
+		}
+
+		if (lastHandMoveTime != -1L) {
+			long currentTime = System.currentTimeMillis();
+			/**
+			 * delta is second Type.
+			 */
+			float delta = (currentTime - lastHandMoveTime) / 1000.0f;
+
+			/**
+			 * often used in Comparable interface,if > 0 return 1.0 if < 0 ,return -1.0;if 0 return 0;
+			 */
+			float direction = Math.signum(handVelocity);
+			if (Math.abs(handVelocity) < 90.0f) {
+				handAcceleration = 5.0f * (handTarget - handPosition);
+			} else {
+				handAcceleration = 0.0f;
+			}
+			handPosition += handVelocity * delta;
+			handVelocity += handAcceleration * delta;
+			/**
+			 * the handPosition will more and more approach to the handTarget,and when their distance is within 0.01f,then we should directly set
+			 * the handPosition to handTarget. and set related params to their initial state and stop moving.
+			 */
+			if ((handTarget - handPosition) * direction < 0.01f * direction) {
+				handPosition = handTarget;
+				handVelocity = 0.0f;
+				handAcceleration = 0.0f;
+				lastHandMoveTime = -1L;
+			} else {
+				lastHandMoveTime = System.currentTimeMillis();
+			}
+			return true;
+		} else {
+			lastHandMoveTime = System.currentTimeMillis();
+			return move();
+		}
+	}
+
+	/**
+	 * Logs how many frames of hand movement the gauge drew and skipped, once the hand has settled.
+	 */
+	static void logSettled(String tag, int drawnFrameCount, int skippedFrameCount) {
+		Log.d(tag, "Hand settled, " + drawnFrameCount + " frames drawn, " + skippedFrameCount + " skipped so far");
+	}
+
+	public void fill(GaugeState state) {
+		state.set(handInitialized, handPosition);
+	}
+
+	public void save(Bundle state) {
+		state.putBoolean("handInitialized", handInitialized);
+		state.putFloat("handPosition", handPosition);
+		state.putFloat("handTarget", handTarget);
+		state.putFloat("handVelocity", handVelocity);
+		state.putFloat("handAcceleration", handAcceleration);
+		state.putLong("lastHandMoveTime", lastHandMoveTime);
+	}
+
+	public void restore(Bundle bundle) {
+		handInitialized = bundle.getBoolean("handInitialized");
+		handPosition = bundle.getFloat("handPosition");
+		handTarget = bundle.getFloat("handTarget");
+		handVelocity = bundle.getFloat("handVelocity");
+		handAcceleration = bundle.getFloat("handAcceleration");
+		lastHandMoveTime = bundle.getLong("lastHandMoveTime");
+	}
+}
@@ -0,0 +1,328 @@
+package com.mindtherobot.samples.thermometer;
+
+import android.os.SystemClock;
+
+/**
+ * Min/max/mean/percentiles of the temperature, since the last {@link #reset()} and over a sliding
+ * time window. Every operation is O(1) (percentiles scan a fixed number of buckets) and nothing is
+ * allocated per sample: the window lives in preallocated ring buffers.
+ *
+ * Windowed min and max come from monotonic deques of sample sequence numbers, the mean from a running
+ * sum, the percentiles from a histogram with one bucket per F degree of the scale.
+ *
+ * The window is bounded both in time and in samples: once it holds capacity samples the oldest ones
+ * are dropped early. It ends at the current time, so samples leave it as they get too old even while
+ * no readings arrive. Times are on the {@link SystemClock#elapsedRealtime()} clock.
+ *
+ * Samples are added on one thread, queries may come from any thread. The min/max ranges are also
+ * published in volatile slots, so gauges can read them once per frame without locking.
+ */
+public final class RollingStatistics {
+
+	/**
+	 * Which samples a range covers.
+	 */
+	public enum Span {
+		WINDOW,
+		SINCE_RESET
+	}
+
+	/**
+	 * Told when the ranges change without a new sample: on {@link #reset()} and when old samples
+	 * leave the window. May be called on any thread.
+	 */
+	public interface Listener {
+		void onRangesChanged(RollingStatistics statistics);
+	}
+
+	/** the value of an empty range, see {@link #readRange(Span)} */
+	public static final long NO_RANGE = packRange(Float.NaN, Float.NaN);
+
+	private static final int bucketCount = GaugeRenderer.maxDegrees - GaugeRenderer.minDegrees + 1;
+
+	private final long windowMillis;
+	private final int capacity;
+
+	// the window, as a ring of samples indexed by sequence number
+	private final float[] values;
+	private final long[] times;
+	private long head = 0; // sequence of the oldest sample in the window
+	private long tail = 0; // sequence of the next sample
+
+	// sequence numbers of the samples that may still become the window min/max, as rings
+	private final long[] minDeque;
+	private long minHead = 0;
+	private long minTail = 0;
+	private final long[] maxDeque;
+	private long maxHead = 0;
+	private long maxTail = 0;
+
+	private double windowSum = 0.0;
+	private final int[] histogram = new int[bucketCount];
+
+	// since reset
+	private long totalCount = 0;
+	private double totalSum = 0.0;
+	private float totalMin = Float.NaN;
+	private float totalMax = Float.NaN;
+
+	private volatile long windowRange = NO_RANGE;
+	private volatile long totalRange = NO_RANGE;
+	// when the oldest sample leaves the window, Long.MAX_VALUE while it is empty
+	private volatile long windowExpiryTime = Long.MAX_VALUE;
+
+	private volatile Listener listener;
+
+	/**
+	 * @param windowMillis how far back the window reaches
+	 * @param capacity the most samples the window holds
+	 */
+	public RollingStatistics(long windowMillis, int capacity) {
+		this.windowMillis = windowMillis;
+		this.capacity = capacity;
+		values = new float[capacity];
+		times = new long[capacity];
+		minDeque = new long[capacity];
+		maxDeque = new long[capacity];
+	}
+
+	public void setListener(Listener listener) {
+		this.listener = listener;
+	}
+
+	/**
+	 * @param value the temperature in F degrees, clamped to the scale
+	 * @param timeMillis when it was measured, see {@link SystemClock#elapsedRealtime()}
+	 */
+	public synchronized void add(float value, long timeMillis) {
+		evict(timeMillis);
+		if (tail - head == capacity) {
+			removeOldest();
+		}
+
+		int index = index(tail);
+		values[index] = value;
+		times[index] = timeMillis;
+		windowSum += value;
+		histogram[bucket(value)]++;
+
+		/**
+		 * a sample that is lower (higher) than an older one outlives it in the window,
+		 * so the older one can never be the minimum (maximum) again
+		 */
+		while (minTail > minHead && values[index(minDeque[index(minTail - 1)])] >= value) {
+			minTail--;
+		}
+		minDeque[index(minTail++)] = tail;
+		while (maxTail > maxHead && values[index(maxDeque[index(maxTail - 1)])] <= value) {
+			maxTail--;
+		}
+		maxDeque[index(maxTail++)] = tail;
+
+		tail++;
+
+		totalCount++;
+		totalSum += value;
+		if (!(value >= totalMin)) { // also true while totalMin is NaN
+			totalMin = value;
+		}
+		if (!(value <= totalMax)) {
+			totalMax = value;
+		}
+
+		publish();
+	}
+
+	/**
+	 * Drops the samples that have left the window by now. Queries do this themselves,
+	 * it only needs calling to learn about the change in time, see {@link Listener}.
+	 * @return when the next sample leaves the window, or Long.MAX_VALUE if it is empty
+	 */
+	public long expire() {
+		boolean changed;
+		long expiryTime;
+		synchronized (this) {
+			long oldRange = windowRange;
+			evict(SystemClock.elapsedRealtime());
+			publish();
+			changed = windowRange != oldRange;
+			expiryTime = windowExpiryTime;
+		}
+		if (changed) {
+			notifyListener();
+		}
+		return expiryTime;
+	}
+
+	private void evict(long nowMillis) {
+		long cutoff = nowMillis - windowMillis;
+		while (head < tail && times[index(head)] < cutoff) {
+			removeOldest();
+		}
+	}
+
+	private void publish() {
+		windowRange = packRange(minHead < minTail ? values[index(minDeque[index(minHead)])] : Float.NaN,
+				maxHead < maxTail ? values[index(maxDeque[index(maxHead)])] : Float.NaN);
+		totalRange = packRange(totalMin, totalMax);
+		windowExpiryTime = head < tail ? times[index(head)] + windowMillis : Long.MAX_VALUE;
+	}
+
+	private void notifyListener() {
+		Listener listener = this.listener;
+		if (listener != null) {
+			listener.onRangesChanged(this);
+		}
+	}
+
+	private void removeOldest() {
+		float value = values[index(head)];
+		windowSum -= value;
+		histogram[bucket(value)]--;
+		if (minDeque[index(minHead)] == head) {
+			minHead++;
+		}
+		if (maxDeque[index(maxHead)] == head) {
+			maxHead++;
+		}
+		head++;
+	}
+
+	/**
+	 * Forgets the samples since reset. The window keeps rolling.
+	 */
+	public void reset() {
+		synchronized (this) {
+			totalCount = 0;
+			totalSum = 0.0;
+			totalMin = Float.NaN;
+			totalMax = Float.NaN;
+			totalRange = NO_RANGE;
+		}
+		notifyListener();
+	}
+
+	public int getWindowCount() {
+		expire();
+		synchronized (this) {
+			return (int) (tail - head);
+		}
+	}
+
+	/**
+	 * @return the lowest temperature in the window, or NaN if it is empty
+	 */
+	public float getWindowMin() {
+		return minOf(readRange(Span.WINDOW));
+	}
+
+	/**
+	 * @return the highest temperature in the window, or NaN if it is empty
+	 */
+	public float getWindowMax() {
+		return maxOf(readRange(Span.WINDOW));
+	}
+
+	/**
+	 * @return the mean temperature in the window, or NaN if it is empty
+	 */
+	public float getWindowMean() {
+		expire();
+		synchronized (this) {
+			return head < tail ? (float) (windowSum / (tail - head)) : Float.NaN;
+		}
+	}
+
+	/**
+	 * Approximates a percentile of the window to the nearest F degree.
+	 * @param percentile between 0 and 100
+	 * @return the temperature, or NaN if the window is empty
+	 */
+	public float getWindowPercentile(float percentile) {
+		expire();
+		synchronized (this) {
+			long count = tail - head;
+			if (count == 0) {
+				return Float.NaN;
+			}
+			long rank = (long) Math.ceil(percentile / 100.0f * count);
+			if (rank < 1) {
+				rank = 1;
+			}
+			long seen = 0;
+			for (int i = 0; i < bucketCount; ++i) {
+				seen += histogram[i];
+				if (seen >= rank) {
+					return GaugeRenderer.minDegrees + i;
+				}
+			}
+			return GaugeRenderer.maxDegrees;
+		}
+	}
+
+	public synchronized long getCount() {
+		return totalCount;
+	}
+
+	/**
+	 * @return the lowest temperature since reset, or NaN if there was none
+	 */
+	public synchronized float getMin() {
+		return totalMin;
+	}
+
+	/**
+	 * @return the highest temperature since reset, or NaN if there was none
+	 */
+	public synchronized float getMax() {
+		return totalMax;
+	}
+
+	/**
+	 * @return the mean temperature since reset, or NaN if there was none
+	 */
+	public synchronized float getMean() {
+		return totalCount > 0 ? (float) (totalSum / totalCount) : Float.NaN;
+	}
+
+	/**
+	 * Read of the min/max meant to be called once per frame. Lock-free, unless samples have
+	 * left the window since the last call.
+	 * @return both values packed, decode them with {@link #minOf(long)} and {@link #maxOf(long)}
+	 */
+	public long readRange(Span span) {
+		if (span == Span.SINCE_RESET) {
+			return totalRange;
+		}
+		if (SystemClock.elapsedRealtime() > windowExpiryTime) {
+			expire();
+		}
+		return windowRange;
+	}
+
+	public static float minOf(long range) {
+		return Float.intBitsToFloat((int) (range >>> 32));
+	}
+
+	public static float maxOf(long range) {
+		return Float.intBitsToFloat((int) range);
+	}
+
+	private static long packRange(float min, float max) {
+		return ((long) Float.floatToRawIntBits(min) << 32) | (Float.floatToRawIntBits(max) & 0xffffffffL);
+	}
+
+	private int index(long sequence) {
+		return (int) (sequence % capacity);
+	}
+
+	private static int bucket(float value) {
+		int bucket = Math.round(value) - GaugeRenderer.minDegrees;
+		if (bucket < 0) {
+			return 0;
+		} else if (bucket >= bucketCount) {
+			return bucketCount - 1;
+		}
+		return bucket;
+	}
+}
@@ -0,0 +1,251 @@
+package com.mindtherobot.samples.thermometer;
+
+import android.content.Context;
+import android.hardware.Sensor;
+import android.hardware.SensorEvent;
+import android.hardware.SensorEventListener;
+import android.hardware.SensorManager;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Process-wide temperature sensor registrations shared by all gauges.
+ *
+ * Every physical sensor is registered once, no matter how many gauges show it. Each reading is
+ * converted to F degrees and clamped to the scale once, then published into the latest-value slot
+ * of the sensor's {@link Channel}. Subscribers are only told that a new reading is available; they
+ * read the slot themselves, once per frame, without locking.
+ *
+ * The sensor registration is reference counted: it is made by the first subscriber of a sensor
+ * and dropped when the last one unsubscribes. The channel itself stays for the life of the process,
+ * so gauges recreated by a rotation find the latest reading and the statistics where they were.
+ *
+ * Each channel also feeds the readings into its {@link RollingStatistics}, once for all gauges,
+ * and while it has subscribers wakes up when the oldest reading leaves the window.
+ */
+public final class TemperatureSensorHub {
+
+	private static final String TAG = TemperatureSensorHub.class.getSimpleName();
+
+	private static TemperatureSensorHub instance;
+
+	// the statistics window of every channel: 10 minutes, at most 4096 readings
+	private static final long statisticsWindowMillis = 10L * 60L * 1000L;
+	private static final int statisticsCapacity = 4096;
+
+	/**
+	 * Notified on the hub's sensor thread whenever a channel publishes a new reading, so a busy
+	 * UI thread does not hold up gauges that draw on their own thread.
+	 * Implementations should only schedule a redraw (e.g. postInvalidate()) and read the channel when drawing.
+	 */
+	public interface Subscriber {
+		void onReadingAvailable(Channel channel);
+
+		/**
+		 * Notified on the hub's sensor thread when the statistics of a channel changed without a new reading,
+		 * i.e. they were reset or old readings left the window.
+		 */
+		void onStatisticsChanged(Channel channel);
+	}
+
+	private final SensorManager sensorManager;
+	// sensor events, statistics ticks and subscriber callbacks all run on this thread
+	private final HandlerThread sensorThread;
+	private final Handler handler;
+
+	// guarded by this, never shrinks
+	private final Map<Sensor, Channel> channels = new HashMap<Sensor, Channel>();
+
+	public static synchronized TemperatureSensorHub getInstance(Context context) {
+		if (instance == null) {
+			instance = new TemperatureSensorHub(context.getApplicationContext());
+		}
+		return instance;
+	}
+
+	private TemperatureSensorHub(Context context) {
+		sensorManager = (SensorManager) context.getSystemService(Context.SENSOR_SERVICE);
+		sensorThread = new HandlerThread(TAG);
+		sensorThread.start();
+		handler = new Handler(sensorThread.getLooper());
+	}
+
+	/**
+	 * Subscribes to the default temperature sensor.
+	 * @return the channel to read from, or null if the device has no temperature sensor
+	 */
+	public Channel subscribe(Subscriber subscriber) {
+		List<Sensor> sensors = sensorManager.getSensorList(Sensor.TYPE_TEMPERATURE);
+		if (sensors.size() > 0) {
+			return subscribe(sensors.get(0), subscriber);
+		} else {
+			Log.e(TAG, "No temperature sensor found");
+			return null;
+		}
+	}
+
+	public synchronized Channel subscribe(Sensor sensor, Subscriber subscriber) {
+		Channel channel = channels.get(sensor);
+		if (channel == null) {
+			channel = new Channel(sensor, handler);
+			channels.put(sensor, channel);
+		}
+		boolean first = channel.subscribers.isEmpty();
+		channel.subscribers.add(subscriber);
+		if (first) {
+			sensorManager.registerListener(channel, sensor, SensorManager.SENSOR_DELAY_FASTEST, handler);
+			channel.scheduleExpiry();
+		}
+		return channel;
+	}
+
+	public synchronized void unsubscribe(Channel channel, Subscriber subscriber) {
+		if (channel.subscribers.remove(subscriber) && channel.subscribers.isEmpty()) {
+			// the channel stays in the map, only its sensor stops reporting
+			sensorManager.unregisterListener(channel);
+			channel.handler.removeCallbacks(channel.expiryTick);
+		}
+	}
+
+	/**
+	 * One physical sensor and the latest reading it produced.
+	 *
+	 * The reading is published as a single volatile long holding a sequence number in the high
+	 * 32 bits and the float bits of the temperature in the low 32 bits, so readers always see a
+	 * consistent pair without taking a lock.
+	 */
+	public static final class Channel implements SensorEventListener {
+
+		/** sequence 0 means no reading has been published yet */
+		public static final long NO_READING = 0L;
+
+		private final Sensor sensor;
+		private final Handler handler;
+		private final CopyOnWriteArrayList<Subscriber> subscribers = new CopyOnWriteArrayList<Subscriber>();
+		private final RollingStatistics statistics = new RollingStatistics(statisticsWindowMillis, statisticsCapacity);
+
+		private final Runnable expiryTick = new Runnable() {
+			@Override
+			public void run() {
+				scheduleExpiry();
+			}
+		};
+		private final Runnable statisticsChanged = new Runnable() {
+			@Override
+			public void run() {
+				for (Subscriber subscriber : subscribers) {
+					subscriber.onStatisticsChanged(Channel.this);
+				}
+			}
+		};
+
+		// written only by the sensor callback on the sensor thread
+		private volatile long latest = NO_READING;
+
+		/**
+		 * shared by all channels, only touched on the sensor thread
+		 */
+		private static int sequence = 0;
+
+		private Channel(Sensor sensor, Handler handler) {
+			this.sensor = sensor;
+			this.handler = handler;
+
+			/**
+			 * reset() may come from any thread, subscribers are told on the sensor thread
+			 */
+			statistics.setListener(new RollingStatistics.Listener() {
+				@Override
+				public void onRangesChanged(RollingStatistics statistics) {
+					Channel.this.handler.removeCallbacks(statisticsChanged);
+					Channel.this.handler.post(statisticsChanged);
+				}
+			});
+		}
+
+		public Sensor getSensor() {
+			return sensor;
+		}
+
+		public RollingStatistics getStatistics() {
+			return statistics;
+		}
+
+		/**
+		 * @return the latest reading, decode it with {@link #sequenceOf(long)} and {@link #temperatureOf(long)}
+		 */
+		public long read() {
+			return latest;
+		}
+
+		public static int sequenceOf(long reading) {
+			return (int) (reading >>> 32);
+		}
+
+		/**
+		 * @return the temperature in F degrees, already clamped to the scale
+		 */
+		public static float temperatureOf(long reading) {
+			return Float.intBitsToFloat((int) reading);
+		}
+
+		@Override
+		public void onAccuracyChanged(Sensor sensor, int accuracy) {
+
+		}
+
+		@Override
+		public void onSensorChanged(SensorEvent sensorEvent) {
+			if (sensorEvent.values.length > 0) {
+				float temperatureC = sensorEvent.values[0];
+
+				float temperatureF = (9.0f / 5.0f) * temperatureC + 32.0f;
+				if (temperatureF < GaugeRenderer.minDegrees) {
+					temperatureF = GaugeRenderer.minDegrees;
+				} else if (temperatureF > GaugeRenderer.maxDegrees) {
+					temperatureF = GaugeRenderer.maxDegrees;
+				}
+
+				/**
+				 * skip 0 on wrap-around, it is reserved for NO_READING
+				 */
+				if (++sequence == 0) {
+					sequence = 1;
+				}
+				latest = ((long) sequence << 32) | (Float.floatToRawIntBits(temperatureF) & 0xffffffffL);
+
+				/**
+				 * not the event timestamp, its clock differs between devices
+				 * and the window has to be compared with the current time
+				 */
+				statistics.add(temperatureF, SystemClock.elapsedRealtime());
+				scheduleExpiry();
+
+				for (Subscriber subscriber : subscribers) {
+					subscriber.onReadingAvailable(this);
+				}
+			} else {
+				Log.w(TAG, "Empty sensor event received");
+			}
+		}
+
+		/**
+		 * Drops the readings that have left the window and wakes up again when the next one does.
+		 * The delay runs on uptime, so after a deep sleep this comes late; readRange() catches up by itself.
+		 */
+		private void scheduleExpiry() {
+			handler.removeCallbacks(expiryTick);
+			long expiryTime = statistics.expire();
+			if (expiryTime != Long.MAX_VALUE && !subscribers.isEmpty()) {
+				handler.postDelayed(expiryTick, expiryTime + 1 - SystemClock.elapsedRealtime());
+			}
+		}
+	}
+}
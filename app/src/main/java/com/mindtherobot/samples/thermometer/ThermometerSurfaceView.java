@@ -0,0 +1,407 @@
+package com.mindtherobot.samples.thermometer;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.PixelFormat;
+import android.graphics.PorterDuff;
+import android.os.Build;
+import android.os.Bundle;
+import android.os.Parcelable;
+import android.os.Process;
+import android.util.AttributeSet;
+import android.util.Log;
+import android.view.SurfaceHolder;
+import android.view.SurfaceView;
+
+/**
+ * A {@link Thermometer} drawn on its own surface by a dedicated render thread,
+ * so the hand keeps moving smoothly while the UI thread is busy (inflating a list etc.).
+ *
+ * The render thread only locks the canvas while the hand is moving or after the surface changed,
+ * and otherwise sleeps until the {@link TemperatureSensorHub} publishes the next reading. The hub
+ * wakes it from its own sensor thread, so new readings reach the hand even while the UI thread is busy.
+ * Each frame blits the cached static background of the {@link GaugeRenderer.Target}
+ * and draws the logo and the hand on top of it.
+ *
+ * From API 5 on the surface is translucent and placed on top of the window, so the corners around
+ * the round dial show what is behind the view. Before that it is opaque and the corners are black.
+ */
+public final class ThermometerSurfaceView extends SurfaceView implements SurfaceHolder.Callback, TemperatureSensorHub.Subscriber {
+
+	private static final String TAG = ThermometerSurfaceView.class.getSimpleName();
+
+	private TemperatureSensorHub sensorHub;
+	private volatile TemperatureSensorHub.Channel sensorChannel;
+
+	private GaugeRenderer renderer;
+	private volatile GaugeRenderer.Detail detail; // see setDetail()
+	private volatile RollingStatistics.Span markerSpan = RollingStatistics.Span.WINDOW; // null hides the min/max markers
+
+	// hand dynamics -- guarded by itself, stepped on the render thread
+	private final HandDynamics hand = new HandDynamics();
+
+	private volatile RenderThread renderThread; // also read by the sensor thread
+
+	// whether the surface shows what is behind it, see init()
+	private boolean translucent;
+
+	// frames of hand movement that were drawn and that were skipped because no pixel would have changed,
+	// only written by the render thread
+	private volatile int drawnFrameCount = 0;
+	private volatile int skippedFrameCount = 0;
+
+	public ThermometerSurfaceView(Context context) {
+		super(context);
+		init();
+	}
+
+	public ThermometerSurfaceView(Context context, AttributeSet attrs) {
+		super(context, attrs);
+		init();
+	}
+
+	public ThermometerSurfaceView(Context context, AttributeSet attrs, int defStyle) {
+		super(context, attrs, defStyle);
+		init();
+	}
+
+	private void init() {
+		sensorHub = TemperatureSensorHub.getInstance(getContext());
+
+		renderer = GaugeRenderer.getInstance(getContext());
+
+		/**
+		 * the gauge is round, so the surface has to be translucent for the corners to show what is behind it.
+		 * A translucent surface only blends with the window when it is on top of it, which needs API 5
+		 * (SDK_INT itself is API 4, hence the string)
+		 */
+		translucent = Integer.parseInt(Build.VERSION.SDK) >= 5;
+		if (translucent) {
+			setZOrderOnTop(true);
+			getHolder().setFormat(PixelFormat.TRANSLUCENT);
+		} else {
+			getHolder().setFormat(PixelFormat.OPAQUE);
+		}
+		getHolder().addCallback(this);
+	}
+
+	@Override
+	protected void onAttachedToWindow() {
+		super.onAttachedToWindow();
+		attachToSensor();
+	}
+
+	@Override
+	protected void onDetachedFromWindow() {
+		detachFromSensor();
+		super.onDetachedFromWindow();
+	}
+
+	@Override
+	protected void onRestoreInstanceState(Parcelable state) {
+		Bundle bundle = (Bundle) state;
+		Parcelable superState = bundle.getParcelable("superState");
+		super.onRestoreInstanceState(superState);
+
+		synchronized (hand) {
+			hand.restore(bundle);
+		}
+		requestRender();
+	}
+
+	@Override
+	protected Parcelable onSaveInstanceState() {
+		Parcelable superState = super.onSaveInstanceState();
+
+		Bundle state = new Bundle();
+		state.putParcelable("superState", superState);
+		synchronized (hand) {
+			hand.save(state);
+		}
+		return state;
+	}
+
+	/**
+	 * @see Thermometer#setDetail(GaugeRenderer.Detail)
+	 */
+	public void setDetail(GaugeRenderer.Detail detail) {
+		this.detail = detail;
+		requestRender();
+	}
+
+	public GaugeRenderer.Detail getDetail() {
+		return detail;
+	}
+
+	/**
+	 * @see Thermometer#getStatistics()
+	 */
+	public RollingStatistics getStatistics() {
+		TemperatureSensorHub.Channel channel = sensorChannel;
+		return channel != null ? channel.getStatistics() : null;
+	}
+
+	/**
+	 * @see Thermometer#setMarkerSpan(RollingStatistics.Span)
+	 */
+	public void setMarkerSpan(RollingStatistics.Span markerSpan) {
+		this.markerSpan = markerSpan;
+		requestRender();
+	}
+
+	public RollingStatistics.Span getMarkerSpan() {
+		return markerSpan;
+	}
+
+	public int getDrawnFrameCount() {
+		return drawnFrameCount;
+	}
+
+	public int getSkippedFrameCount() {
+		return skippedFrameCount;
+	}
+
+	private void attachToSensor() {
+		sensorChannel = sensorHub.subscribe(this);
+		requestRender();
+	}
+
+	private void detachFromSensor() {
+		if (sensorChannel != null) {
+			sensorHub.unsubscribe(sensorChannel, this);
+			sensorChannel = null;
+		}
+	}
+
+	@Override
+	protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+		int chosenDimension = GaugeRenderer.measureSquare(widthMeasureSpec, heightMeasureSpec);
+		setMeasuredDimension(chosenDimension, chosenDimension);
+	}
+
+	@Override
+	public void surfaceCreated(SurfaceHolder holder) {
+		renderThread = new RenderThread(holder);
+		renderThread.start();
+	}
+
+	@Override
+	public void surfaceChanged(SurfaceHolder holder, int format, int width, int height) {
+		Log.d(TAG, "Surface changed to " + width + "x" + height);
+
+		renderThread.setSize(width, height);
+	}
+
+	@Override
+	public void surfaceDestroyed(SurfaceHolder holder) {
+		/**
+		 * the surface must not be touched once this method returns, so wait for the render thread to finish its frame
+		 */
+		renderThread.quit();
+		renderThread = null;
+	}
+
+	@Override
+	public void onReadingAvailable(TemperatureSensorHub.Channel channel) {
+		/**
+		 * the render thread picks up the latest reading itself
+		 */
+		requestRender();
+	}
+
+	@Override
+	public void onStatisticsChanged(TemperatureSensorHub.Channel channel) {
+		requestRender();
+	}
+
+	private void requestRender() {
+		RenderThread thread = renderThread;
+		if (thread != null) {
+			thread.requestRender();
+		}
+	}
+
+	/**
+	 * Draws frames while there is something to draw, sleeps otherwise.
+	 * Lives between surfaceCreated() and surfaceDestroyed().
+	 */
+	private final class RenderThread extends Thread {
+
+		private final SurfaceHolder holder;
+		private final GaugeState gaugeState = new GaugeState();
+
+		// guarded by this
+		private boolean running = true;
+		private boolean dirty = false;
+		private int width;
+		private int height;
+
+		// only touched by the render thread
+		private GaugeRenderer.Target target;
+		private boolean forceDraw; // the frame was requested, not just the hand moving
+
+		RenderThread(SurfaceHolder holder) {
+			super(TAG + "-render");
+			this.holder = holder;
+		}
+
+		synchronized void setSize(int width, int height) {
+			this.width = width;
+			this.height = height;
+			dirty = true;
+			notify();
+		}
+
+		synchronized void requestRender() {
+			dirty = true;
+			notify();
+		}
+
+		void quit() {
+			synchronized (this) {
+				running = false;
+				notify();
+			}
+			boolean interrupted = false;
+			while (true) {
+				try {
+					join();
+					break;
+				} catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		@Override
+		public void run() {
+			Process.setThreadPriority(Process.THREAD_PRIORITY_DISPLAY);
+
+			try {
+				while (waitForWork()) {
+					drawFrame();
+				}
+			} finally {
+				if (target != null) {
+					target.recycle();
+					target = null;
+				}
+			}
+		}
+
+		/**
+		 * Blocks until a frame has to be drawn.
+		 * @return false once the thread has been asked to quit
+		 */
+		private boolean waitForWork() {
+			synchronized (this) {
+				while (running) {
+					boolean moving;
+					TemperatureSensorHub.Channel channel = sensorChannel;
+					synchronized (hand) {
+						if (channel != null) {
+							hand.update(channel);
+						}
+						moving = hand.needsToMove();
+					}
+					if (width > 0 && height > 0 && (dirty || moving)) {
+						forceDraw = dirty;
+						dirty = false;
+						GaugeRenderer.Detail wantedDetail = detail;
+						if (wantedDetail == null) {
+							wantedDetail = GaugeRenderer.Detail.forSize(Math.min(width, height));
+						}
+						if (target == null || target.getWidth() != width || target.getHeight() != height
+								|| target.getDetail() != wantedDetail) {
+							if (target != null) {
+								target.recycle();
+							}
+							target = renderer.createTarget(width, height, wantedDetail);
+						}
+						return true;
+					}
+					try {
+						wait();
+					} catch (InterruptedException e) {
+						return false;
+					}
+				}
+				return false;
+			}
+		}
+
+		private void drawFrame() {
+			boolean moving;
+			synchronized (hand) {
+				hand.move();
+				hand.fill(gaugeState);
+				moving = hand.needsToMove();
+			}
+			gaugeState.setMarkers(getStatistics(), markerSpan);
+
+			/**
+			 * the hand keeps moving by the clock, so a frame that would not change any pixel
+			 * is simply left out and the next step is taken a frame later
+			 */
+			if (!forceDraw && !target.needsRedraw(gaugeState)) {
+				skippedFrameCount++;
+				if (moving) {
+					waitForNextFrame();
+				} else {
+					logSettled();
+				}
+				return;
+			}
+
+			/**
+			 * render the background before locking, so the surface is held only for the blit and the dynamic layers
+			 */
+			target.prepare();
+
+			Canvas canvas = holder.lockCanvas();
+			if (canvas == null) {
+				return;
+			}
+			try {
+				if (translucent) {
+					canvas.drawColor(Color.TRANSPARENT, PorterDuff.Mode.CLEAR);
+				} else {
+					canvas.drawColor(Color.BLACK);
+				}
+				target.draw(canvas, gaugeState);
+			} finally {
+				holder.unlockCanvasAndPost(canvas);
+			}
+			if (!forceDraw) {
+				drawnFrameCount++;
+				if (!moving) {
+					logSettled();
+				}
+			}
+		}
+
+		/**
+		 * Stands in for the frame pacing of lockCanvas() when a frame is skipped,
+		 * so the hand is not stepped in a busy loop.
+		 */
+		private void waitForNextFrame() {
+			synchronized (this) {
+				if (running && !dirty) {
+					try {
+						wait(HandDynamics.frameDelayMillis);
+					} catch (InterruptedException e) {
+						running = false;
+					}
+				}
+			}
+		}
+
+		private void logSettled() {
+			HandDynamics.logSettled(TAG, drawnFrameCount, skippedFrameCount);
+		}
+	}
+}